@@ -0,0 +1,189 @@
+import java.util.Arrays;
+
+class PrimitiveTree {
+
+    static class Diameter {
+        int start;
+        int end;
+        int length;
+        int weight;
+        int[] path;
+
+        Diameter(int start, int end, int length, int weight, int[] path) {
+            this.start = start;
+            this.end = end;
+            this.length = length;
+            this.weight = weight;
+            this.path = path;
+        }
+    }
+
+    int n;
+    int m;
+    int[] edgeU = new int[16];
+    int[] edgeV = new int[16];
+    int[] edgeW = new int[16];
+
+    int[] offset = new int[17];
+    int[] adj = new int[32];
+    int[] adjWeight = new int[32];
+    int[] adjEdge = new int[32];
+
+    int[] parent = new int[16];
+    int[] depth = new int[16];
+    int[] dist = new int[16];
+    int[] stack = new int[16];
+
+    void reset(int vertexCount) {
+        n = vertexCount;
+        m = 0;
+        if (parent.length < n) {
+            int size = Math.max(n, parent.length * 2);
+            parent = new int[size];
+            depth = new int[size];
+            dist = new int[size];
+            stack = new int[size];
+            offset = new int[size + 1];
+        }
+    }
+
+    void addEdge(int u, int v, int weight) {
+        if (m == edgeU.length) {
+            edgeU = Arrays.copyOf(edgeU, m * 2);
+            edgeV = Arrays.copyOf(edgeV, m * 2);
+            edgeW = Arrays.copyOf(edgeW, m * 2);
+        }
+        edgeU[m] = u;
+        edgeV[m] = v;
+        edgeW[m] = weight;
+        m++;
+    }
+
+    // Списки смежности в формате CSR, порядок соседей совпадает с порядком добавления рёбер
+    void buildAdjacency() {
+        if (adj.length < 2 * m) {
+            adj = new int[Math.max(2 * m, adj.length * 2)];
+            adjWeight = new int[adj.length];
+            adjEdge = new int[adj.length];
+        }
+        Arrays.fill(offset, 0, n + 1, 0);
+        for (int i = 0; i < m; i++) {
+            offset[edgeU[i] + 1]++;
+            offset[edgeV[i] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            offset[i + 1] += offset[i];
+        }
+        System.arraycopy(offset, 0, stack, 0, n);
+        for (int i = 0; i < m; i++) {
+            int u = edgeU[i];
+            int v = edgeV[i];
+            adj[stack[u]] = v;
+            adjWeight[stack[u]] = edgeW[i];
+            adjEdge[stack[u]++] = i;
+            adj[stack[v]] = u;
+            adjWeight[stack[v]] = edgeW[i];
+            adjEdge[stack[v]++] = i;
+        }
+    }
+
+    // Повторное ребро между теми же вершинами (в любом направлении) отбрасывается,
+    // остаётся первое - так же, как в TreeDiameterSwing.addEdge. Списки смежности строятся заново
+    void removeDuplicateEdges() {
+        buildAdjacency();
+        Arrays.fill(dist, 0, n, -1);
+        boolean dropped = false;
+        for (int u = 0; u < n; u++) {
+            for (int i = offset[u]; i < offset[u + 1]; i++) {
+                int v = adj[i];
+                if (dist[v] != u) {
+                    dist[v] = u;
+                    depth[v] = adjEdge[i];
+                } else if (depth[v] != adjEdge[i]) {
+                    edgeU[adjEdge[i]] = -1;
+                    dropped = true;
+                }
+            }
+        }
+        if (!dropped) return;
+
+        int kept = 0;
+        for (int i = 0; i < m; i++) {
+            if (edgeU[i] == -1) continue;
+            edgeU[kept] = edgeU[i];
+            edgeV[kept] = edgeV[i];
+            edgeW[kept] = edgeW[i];
+            kept++;
+        }
+        m = kept;
+        buildAdjacency();
+    }
+
+    // Суммарный размер массивов в элементах int
+    long footprint() {
+        return 4L * parent.length + offset.length + 3L * edgeU.length + 3L * adj.length;
+    }
+
+    boolean isTree() {
+        if (n == 0 || m != n - 1) return false;
+        return farthest(0) >= 0 && visitedCount == n;
+    }
+
+    private int visitedCount;
+
+    // Обход в глубину в прямом порядке, как рекурсивный dfs() в TreeDiameterSwing:
+    // из вершин с максимальной глубиной выбирается первая встреченная
+    int farthest(int root) {
+        Arrays.fill(parent, 0, n, -2);
+        int top = 0;
+        stack[top++] = root;
+        parent[root] = -1;
+        depth[root] = 0;
+        dist[root] = 0;
+        visitedCount = 0;
+        int best = root;
+
+        while (top > 0) {
+            int current = stack[--top];
+            visitedCount++;
+            if (depth[current] > depth[best]) {
+                best = current;
+            }
+            for (int i = offset[current + 1] - 1; i >= offset[current]; i--) {
+                int neighbor = adj[i];
+                if (neighbor == parent[current]) continue;
+                if (parent[neighbor] != -2) return -1;
+                parent[neighbor] = current;
+                depth[neighbor] = depth[current] + 1;
+                dist[neighbor] = dist[current] + adjWeight[i];
+                stack[top++] = neighbor;
+            }
+        }
+        return best;
+    }
+
+    Diameter findDiameter() {
+        int start = farthest(0);
+        int end = farthest(start);
+
+        int length = depth[end];
+        int[] path = new int[length + 1];
+        int index = length;
+        for (int v = end; v != -1; v = parent[v]) {
+            path[index--] = v;
+        }
+        return new Diameter(start, end, length, dist[end], path);
+    }
+
+    // Эксцентриситет вершины в дереве - расстояние до дальнего из концов диаметра
+    int[] eccentricities(Diameter diameter) {
+        int[] result = new int[n];
+        farthest(diameter.start);
+        System.arraycopy(depth, 0, result, 0, n);
+        farthest(diameter.end);
+        for (int i = 0; i < n; i++) {
+            result[i] = Math.max(result[i], depth[i]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,468 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+
+public class TreeBatchProcessor {
+
+    private static final int READ_AHEAD_BYTES = 64 * 1024 * 1024;
+    private static final long MAX_POOLED_INTS = 1 << 20;
+
+    static class BatchTask {
+        int index;
+        String filename;
+        byte[] data;
+        int reservedBytes;
+        PrimitiveTree tree;
+        long cacheKey;
+
+        BatchTask(int index, String filename) {
+            this.index = index;
+            this.filename = filename;
+        }
+    }
+
+    static class BatchResult {
+        int index;
+        String filename;
+        int vertexCount;
+        PrimitiveTree.Diameter diameter;
+        boolean fromCache;
+        String error;
+
+        BatchResult(int index, String filename) {
+            this.index = index;
+            this.filename = filename;
+        }
+    }
+
+    private static final BatchTask WORKER_END = new BatchTask(-1, null);
+
+    private final List<String> files;
+    private final int workers;
+    private final int inFlight;
+
+    // Файл занимает слот от чтения до печати результата, поэтому в работе одновременно не больше
+    // inFlight деревьев: на каждое приходится ровно один буфер из пула, и ни одна очередь ниже
+    // не может переполниться. Очереди ограничены этим числом (плюс маркеры завершения), и
+    // add/addFirst в них никогда не упираются в ёмкость.
+    // Общая очередь работ для всех потоков: вычисление диаметра (вместе с проверкой, что граф
+    // является деревом - отдельной стадии проверки нет, она идёт после поиска в кэше) добавляется
+    // в начало, разбор прочитанных файлов - в конец. Объём прочитанных, но ещё не разобранных
+    // файлов ограничен в байтах
+    private final Semaphore slots;
+    private final Semaphore readAheadBytes = new Semaphore(READ_AHEAD_BYTES);
+    private final BlockingDeque<BatchTask> work;
+    private final BlockingQueue<BatchTask> lookupQueue;
+    private final BlockingQueue<BatchResult> resultQueue;
+    private final BlockingDeque<PrimitiveTree> bufferPool;
+    private final TreeDiameterCache cache = TreeDiameterCache.getInstance();
+
+    public TreeBatchProcessor(List<String> files) {
+        this.files = files;
+        this.workers = Math.max(1, Runtime.getRuntime().availableProcessors());
+        this.inFlight = 2 * workers;
+
+        slots = new Semaphore(inFlight);
+        work = new LinkedBlockingDeque<>(inFlight + workers);
+        lookupQueue = new ArrayBlockingQueue<>(inFlight + 1);
+        resultQueue = new ArrayBlockingQueue<>(inFlight);
+        bufferPool = new LinkedBlockingDeque<>(inFlight);
+        for (int i = 0; i < inFlight; i++) {
+            bufferPool.add(new PrimitiveTree());
+        }
+    }
+
+    public List<BatchResult> run() throws InterruptedException {
+        System.out.println("\n=== ПАКЕТНАЯ ОБРАБОТКА ДЕРЕВЬЕВ ===");
+        System.out.println("Файлов: " + files.size() + ", потоков обработки: " + workers);
+
+        List<Thread> threads = new ArrayList<>();
+        threads.add(new Thread(this::readStage, "batch-reader"));
+        threads.add(new Thread(this::lookupStage, "batch-cache-lookup"));
+        for (int i = 0; i < workers; i++) {
+            threads.add(new Thread(this::workerStage, "batch-worker-" + i));
+        }
+        for (Thread t : threads) {
+            t.setDaemon(true);
+            t.start();
+        }
+
+        // Каждый файл на любой стадии даёт ровно один результат, поэтому завершение
+        // определяется по их числу, а не по маркерам конца от отдельных потоков
+        BatchResult[] results = new BatchResult[files.size()];
+        for (int received = 0; received < files.size(); received++) {
+            BatchResult result = resultQueue.take();
+            slots.release();
+            results[result.index] = result;
+            printResult(result);
+        }
+        for (int i = 0; i < workers; i++) {
+            work.putLast(WORKER_END);
+        }
+        lookupQueue.put(WORKER_END);
+        cache.flush();
+
+        System.out.println("=== ПАКЕТНАЯ ОБРАБОТКА ЗАВЕРШЕНА ===\n");
+        return List.of(results);
+    }
+
+    private void readStage() {
+        try {
+            for (int i = 0; i < files.size(); i++) {
+                BatchTask task = new BatchTask(i, files.get(i));
+                boolean queued = false;
+                String error = "Ошибка при чтении файла";
+                slots.acquire();
+                try {
+                    Path path = Paths.get(task.filename);
+                    // Файл больше всего бюджета читается, когда остальные уже разобраны
+                    int bytes = (int) Math.min(Files.size(path), READ_AHEAD_BYTES);
+                    readAheadBytes.acquire(bytes);
+                    task.reservedBytes = bytes;
+                    task.data = Files.readAllBytes(path);
+                    work.addLast(task);
+                    queued = true;
+                } catch (IOException | RuntimeException | OutOfMemoryError e) {
+                    error = "Ошибка при чтении файла: " + e.getMessage();
+                } finally {
+                    if (!queued) {
+                        releaseReadAhead(task);
+                        fail(task, error);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void workerStage() {
+        try {
+            while (true) {
+                BatchTask task = work.takeFirst();
+                if (task == WORKER_END) break;
+
+                if (task.tree == null) {
+                    parseTask(task);
+                } else {
+                    computeTask(task);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void parseTask(BatchTask task) {
+        PrimitiveTree tree = takeBuffer();
+        boolean handedOff = false;
+        String error = "Ошибка при разборе файла";
+        try {
+            parse(task.data, tree);
+            task.cacheKey = TreeDiameterCache.hash(tree);
+            task.tree = tree;
+            lookupQueue.put(task);
+            handedOff = true;
+        } catch (RuntimeException | OutOfMemoryError e) {
+            error = "Ошибка при разборе файла: " + e.getMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            releaseReadAhead(task);
+            if (!handedOff) {
+                releaseBuffer(tree);
+                fail(task, error);
+            }
+        }
+    }
+
+    // Поиск в кэше читает диск, поэтому выполняется в отдельном потоке, а не в потоках вычислений.
+    // При попадании дерево не проверяется и диаметр не ищется
+    private void lookupStage() {
+        try {
+            while (true) {
+                BatchTask task = lookupQueue.take();
+                if (task == WORKER_END) break;
+
+                boolean handedOff = false;
+                try {
+                    TreeDiameterCache.Entry cached = cache.get(task.cacheKey, task.tree.n);
+                    if (cached != null) {
+                        BatchResult result = new BatchResult(task.index, task.filename);
+                        result.vertexCount = cached.vertexCount;
+                        result.diameter = cached.diameter;
+                        result.fromCache = true;
+                        resultQueue.add(result);
+                        releaseBuffer(task.tree);
+                    } else {
+                        work.addFirst(task);
+                    }
+                    handedOff = true;
+                } finally {
+                    if (!handedOff) {
+                        releaseBuffer(task.tree);
+                        fail(task, "Ошибка при чтении кэша");
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void computeTask(BatchTask task) {
+        PrimitiveTree tree = task.tree;
+        boolean reported = false;
+        String error = "Ошибка при поиске диаметра";
+        try {
+            if (!tree.isTree()) {
+                error = "Загруженный граф не является деревом!";
+                return;
+            }
+            BatchResult result = new BatchResult(task.index, task.filename);
+            result.vertexCount = tree.n;
+            result.diameter = tree.findDiameter();
+            cache.store(task.cacheKey, new TreeDiameterCache.Entry(tree.n, result.diameter,
+                    tree.eccentricities(result.diameter)));
+            resultQueue.add(result);
+            reported = true;
+        } catch (RuntimeException | OutOfMemoryError e) {
+            error = "Ошибка при поиске диаметра: " + e.getMessage();
+        } finally {
+            releaseBuffer(tree);
+            if (!reported) {
+                fail(task, error);
+            }
+        }
+    }
+
+    private void fail(BatchTask task, String error) {
+        BatchResult result = new BatchResult(task.index, task.filename);
+        result.error = error;
+        resultQueue.add(result);
+    }
+
+    private void releaseReadAhead(BatchTask task) {
+        task.data = null;
+        readAheadBytes.release(task.reservedBytes);
+        task.reservedBytes = 0;
+    }
+
+    // Буфер для дерева всегда есть: их столько же, сколько слотов. Пул работает как стек, чтобы
+    // повторно использовались недавно занятые буферы, а буфер от очень большого дерева заменяется
+    // новым, чтобы все буферы пула не разрастались до размера самого большого дерева
+    private PrimitiveTree takeBuffer() {
+        PrimitiveTree tree = bufferPool.pollFirst();
+        if (tree == null) {
+            throw new IllegalStateException("пул буферов пуст");
+        }
+        return tree;
+    }
+
+    private void releaseBuffer(PrimitiveTree tree) {
+        bufferPool.offerFirst(tree.footprint() > MAX_POOLED_INTS ? new PrimitiveTree() : tree);
+    }
+
+    // Разбор идёт прямо по байтам файла в массивы PrimitiveTree, без промежуточных строк.
+    // Формат определяется по содержимому: матрица смежности содержит ровно n строк по n чисел
+    // с нулями на диагонали, иначе файл считается списком рёбер. Правила те же, что у загрузки в окне:
+    // рёбра с номером вершины >= n и повторные рёбра пропускаются
+    static void parse(byte[] data, PrimitiveTree tree) {
+        ByteScanner scanner = new ByteScanner(data);
+        if (!scanner.nextRow()) {
+            throw new IllegalArgumentException("пустой файл");
+        }
+        int vertexCount = scanner.nextInt();
+        if (vertexCount <= 0) {
+            throw new IllegalArgumentException("некорректное число вершин: " + vertexCount);
+        }
+
+        int rows = 0;
+        boolean isMatrix = true;
+        while (scanner.nextRow()) {
+            if (isMatrix && rows < vertexCount && scanner.tokenCount() == vertexCount) {
+                for (int j = 0; j < rows; j++) {
+                    scanner.skipToken();
+                }
+                isMatrix = scanner.isZeroToken();
+            } else {
+                isMatrix = false;
+            }
+            rows++;
+        }
+        isMatrix = isMatrix && rows == vertexCount;
+
+        // Дереву из n вершин нужно n-1 строк с рёбрами; больший заголовок не описан файлом
+        if (!isMatrix && vertexCount > rows + 1) {
+            throw new IllegalArgumentException("число вершин " + vertexCount +
+                                               " больше, чем описано в файле (строк: " + rows + ")");
+        }
+        tree.reset(vertexCount);
+
+        scanner.rewind();
+        scanner.nextRow();
+        if (isMatrix) {
+            for (int i = 0; i < vertexCount; i++) {
+                scanner.nextRow();
+                for (int j = 0; j <= i; j++) {
+                    scanner.skipToken();
+                }
+                for (int j = i + 1; j < vertexCount; j++) {
+                    int weight = scanner.nextInt();
+                    if (weight > 0) {
+                        tree.addEdge(i, j, weight);
+                    }
+                }
+            }
+            tree.buildAdjacency();
+            return;
+        }
+
+        while (scanner.nextRow()) {
+            int tokens = scanner.tokenCount();
+            if (tokens < 2) continue;
+            int u = scanner.nextInt();
+            int v = scanner.nextInt();
+            int weight = (tokens >= 3) ? scanner.nextInt() : 1;
+            if (u < 0 || v < 0) {
+                throw new IllegalArgumentException("отрицательный номер вершины: " + u + " - " + v);
+            }
+            if (u >= vertexCount || v >= vertexCount) continue;
+            tree.addEdge(u, v, weight);
+        }
+        tree.removeDuplicateEdges();
+    }
+
+    static class ByteScanner {
+        private final byte[] data;
+        private int pos;
+        private int rowEnd;
+
+        ByteScanner(byte[] data) {
+            this.data = data;
+        }
+
+        void rewind() {
+            pos = 0;
+            rowEnd = 0;
+        }
+
+        // Переход к следующей непустой строке
+        boolean nextRow() {
+            pos = rowEnd;
+            while (pos < data.length) {
+                int end = pos;
+                while (end < data.length && data[end] != '\n') end++;
+                int start = pos;
+                pos = end < data.length ? end + 1 : end;
+                rowEnd = pos;
+                for (int i = start; i < end; i++) {
+                    if (!isSpace(data[i])) {
+                        pos = i;
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        int tokenCount() {
+            int count = 0;
+            boolean inToken = false;
+            for (int i = pos; i < rowEnd; i++) {
+                boolean space = isSpace(data[i]) || data[i] == '\n';
+                if (!space && !inToken) count++;
+                inToken = !space;
+            }
+            return count;
+        }
+
+        boolean isZeroToken() {
+            skipSpaces();
+            int start = pos;
+            while (pos < rowEnd && data[pos] == '0') pos++;
+            return pos > start && (pos >= rowEnd || isSpace(data[pos]) || data[pos] == '\n');
+        }
+
+        void skipToken() {
+            skipSpaces();
+            while (pos < rowEnd && !isSpace(data[pos]) && data[pos] != '\n') pos++;
+        }
+
+        int nextInt() {
+            skipSpaces();
+            int start = pos;
+            boolean negative = pos < rowEnd && data[pos] == '-';
+            if (negative || (pos < rowEnd && data[pos] == '+')) pos++;
+            long value = 0;
+            int digits = 0;
+            while (pos < rowEnd && data[pos] >= '0' && data[pos] <= '9') {
+                value = value * 10 + (data[pos++] - '0');
+                digits++;
+                if (value > (long) Integer.MAX_VALUE + 1) break;
+            }
+            boolean terminated = pos >= rowEnd || isSpace(data[pos]) || data[pos] == '\n';
+            long signed = negative ? -value : value;
+            if (digits == 0 || !terminated || signed > Integer.MAX_VALUE || signed < Integer.MIN_VALUE) {
+                int end = start;
+                while (end < rowEnd && !isSpace(data[end]) && data[end] != '\n') end++;
+                throw new NumberFormatException("For input string: \"" +
+                        new String(data, start, end - start, StandardCharsets.UTF_8) + "\"");
+            }
+            return (int) signed;
+        }
+
+        private void skipSpaces() {
+            while (pos < rowEnd && isSpace(data[pos])) pos++;
+        }
+
+        private static boolean isSpace(byte b) {
+            return b == ' ' || b == '\t' || b == '\r' || b == '\f';
+        }
+    }
+
+    private static void printResult(BatchResult result) {
+        if (result.error != null) {
+            System.out.println(result.filename + ": ОШИБКА: " + result.error);
+            return;
+        }
+
+        StringBuilder pathStr = new StringBuilder();
+        for (int v : result.diameter.path) {
+            pathStr.append(v).append(" ");
+        }
+        System.out.println(result.filename + ": вершин " + result.vertexCount +
+                           ", диаметр (рёбер) " + result.diameter.length +
+                           ", вес " + result.diameter.weight +
+                           ", путь " + pathStr.toString().trim() +
+                           (result.fromCache ? " (из кэша)" : ""));
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        List<String> files = new ArrayList<>();
+        for (String arg : args) {
+            Path path = Paths.get(arg);
+            if (Files.isDirectory(path)) {
+                try (var stream = Files.list(path)) {
+                    stream.filter(p -> p.toString().endsWith(".txt"))
+                          .sorted()
+                          .forEach(p -> files.add(p.toString()));
+                } catch (IOException e) {
+                    System.out.println("Ошибка при чтении каталога " + arg + ": " + e.getMessage());
+                }
+            } else {
+                files.add(arg);
+            }
+        }
+        new TreeBatchProcessor(files).run();
+    }
+}
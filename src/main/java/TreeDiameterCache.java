@@ -0,0 +1,272 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+class TreeDiameterCache {
+
+    private static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    private static final int WRITE_QUEUE_CAPACITY = 256;
+    private static final Pattern ENTRY_NAME = Pattern.compile("[0-9a-f]{16}-\\d+\\.txt");
+
+    static class Entry {
+        int vertexCount;
+        PrimitiveTree.Diameter diameter;
+        int[] eccentricities;
+
+        Entry(int vertexCount, PrimitiveTree.Diameter diameter, int[] eccentricities) {
+            this.vertexCount = vertexCount;
+            this.diameter = diameter;
+            this.eccentricities = eccentricities;
+        }
+    }
+
+    static class PendingWrite {
+        long key;
+        Entry entry;
+        CountDownLatch flushed;
+
+        PendingWrite(long key, Entry entry, CountDownLatch flushed) {
+            this.key = key;
+            this.entry = entry;
+            this.flushed = flushed;
+        }
+    }
+
+    private static TreeDiameterCache instance;
+
+    private final Path directory;
+    private final long maxBytes;
+    private final BlockingQueue<PendingWrite> writes = new ArrayBlockingQueue<>(WRITE_QUEUE_CAPACITY);
+    private long totalBytes;
+
+    TreeDiameterCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        try {
+            Files.createDirectories(directory);
+            // Временные файлы от прерванных записей удаляются, учитываются только сами записи
+            File[] stale = directory.toFile().listFiles((dir, name) -> name.startsWith("entry") && name.endsWith(".tmp"));
+            if (stale != null) {
+                for (File f : stale) {
+                    Files.deleteIfExists(f.toPath());
+                }
+            }
+            for (File f : listEntries()) {
+                totalBytes += f.length();
+            }
+        } catch (IOException e) {
+            System.out.println("Кэш недоступен: " + e.getMessage());
+        }
+
+        // Запись на диск идёт в одном фоновом потоке, чтобы не занимать потоки вычислений и интерфейса
+        Thread writer = new Thread(this::writeLoop, "tree-cache-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush));
+    }
+
+    // Каталог и размер кэша можно переопределить: -Dtree.cache.dir=... -Dtree.cache.maxBytes=...
+    static synchronized TreeDiameterCache getInstance() {
+        if (instance == null) {
+            String dir = System.getProperty("tree.cache.dir",
+                    System.getProperty("user.home") + File.separator + ".tree-diameter-cache");
+            long maxBytes = Long.getLong("tree.cache.maxBytes", DEFAULT_MAX_BYTES);
+            instance = new TreeDiameterCache(Paths.get(dir), maxBytes);
+        }
+        return instance;
+    }
+
+    // Хэш не зависит от порядка рёбер и направления ребра: вклады рёбер складываются,
+    // поэтому он считается одним проходом по уже разобранным рёбрам без сортировки
+    static long vertexHash(int vertexCount) {
+        return mix(0x9E3779B97F4A7C15L ^ vertexCount);
+    }
+
+    static long edgeHash(int u, int v, int weight) {
+        long a = Math.min(u, v);
+        long b = Math.max(u, v);
+        return mix(mix((a << 32) | b) ^ weight);
+    }
+
+    static long hash(PrimitiveTree tree) {
+        long h = vertexHash(tree.n);
+        for (int i = 0; i < tree.m; i++) {
+            h += edgeHash(tree.edgeU[i], tree.edgeV[i], tree.edgeW[i]);
+        }
+        return h;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private Path fileFor(long key, int vertexCount) {
+        return directory.resolve(String.format("%016x-%d.txt", key, vertexCount));
+    }
+
+    Entry get(long key, int vertexCount) {
+        Path file = fileFor(key, vertexCount);
+        if (!Files.exists(file)) return null;
+
+        try {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            int n = Integer.parseInt(lines.get(0).trim());
+            String[] header = lines.get(1).trim().split("\\s+");
+            int[] path = parseInts(lines.get(2));
+            int[] eccentricities = parseInts(lines.get(3));
+            if (n != vertexCount || eccentricities.length != n || path.length != Integer.parseInt(header[0]) + 1) {
+                throw new IllegalStateException("повреждённая запись");
+            }
+            for (int v : path) {
+                if (v < 0 || v >= n) throw new IllegalStateException("повреждённая запись");
+            }
+
+            file.toFile().setLastModified(System.currentTimeMillis());
+            PrimitiveTree.Diameter diameter = new PrimitiveTree.Diameter(path[0], path[path.length - 1],
+                    path.length - 1, Integer.parseInt(header[1]), path);
+            return new Entry(n, diameter, eccentricities);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Запись кэша " + file.getFileName() + " отброшена: " + e.getMessage());
+            remove(file);
+            return null;
+        }
+    }
+
+    void store(long key, Entry entry) {
+        try {
+            writes.put(new PendingWrite(key, entry, null));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Ожидание записи всех ранее переданных результатов
+    void flush() {
+        PendingWrite marker = new PendingWrite(0, null, new CountDownLatch(1));
+        try {
+            writes.put(marker);
+            if (!marker.flushed.await(5, TimeUnit.SECONDS)) {
+                System.out.println("Кэш: не все результаты успели записаться на диск за 5 секунд");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            PendingWrite write;
+            try {
+                write = writes.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (write.flushed != null) {
+                write.flushed.countDown();
+                continue;
+            }
+            try {
+                put(write.key, write.entry);
+            } catch (RuntimeException e) {
+                System.out.println("Не удалось сохранить результат в кэш: " + e.getMessage());
+            }
+        }
+    }
+
+    synchronized void put(long key, Entry entry) {
+        StringBuilder content = new StringBuilder();
+        content.append(entry.vertexCount).append('\n');
+        content.append(entry.diameter.length).append(' ').append(entry.diameter.weight).append('\n');
+        appendInts(content, entry.diameter.path);
+        appendInts(content, entry.eccentricities);
+
+        Path file = fileFor(key, entry.vertexCount);
+        Path temp = null;
+        try {
+            long previous = Files.exists(file) ? Files.size(file) : 0;
+            temp = Files.createTempFile(directory, "entry", ".tmp");
+            Files.writeString(temp, content, StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            totalBytes += Files.size(file) - previous;
+            if (totalBytes > maxBytes) {
+                evict();
+            }
+        } catch (IOException e) {
+            System.out.println("Не удалось сохранить результат в кэш: " + e.getMessage());
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    System.out.println("Не удалось удалить временный файл кэша: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // Вытеснение давно не использованных записей (время последнего обращения - время изменения файла)
+    private synchronized void evict() {
+        if (totalBytes <= maxBytes) return;
+
+        List<File> entries = listEntries();
+        entries.sort(Comparator.comparingLong(File::lastModified));
+
+        long target = maxBytes * 9 / 10;
+        for (File f : entries) {
+            if (totalBytes <= target) break;
+            remove(f.toPath());
+        }
+        System.out.println("Кэш очищен до " + totalBytes + " байт");
+    }
+
+    private List<File> listEntries() {
+        File[] files = directory.toFile().listFiles((dir, name) -> ENTRY_NAME.matcher(name).matches());
+        return files == null ? new ArrayList<>() : new ArrayList<>(Arrays.asList(files));
+    }
+
+    private synchronized void remove(Path file) {
+        try {
+            if (!Files.exists(file)) return;
+            long size = Files.size(file);
+            if (Files.deleteIfExists(file)) {
+                totalBytes -= size;
+            }
+        } catch (IOException e) {
+            System.out.println("Не удалось удалить запись кэша: " + e.getMessage());
+        }
+    }
+
+    private static int[] parseInts(String line) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty()) return new int[0];
+        String[] parts = trimmed.split("\\s+");
+        int[] result = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            result[i] = Integer.parseInt(parts[i]);
+        }
+        return result;
+    }
+
+    private static void appendInts(StringBuilder sb, int[] values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(values[i]);
+        }
+        sb.append('\n');
+    }
+}
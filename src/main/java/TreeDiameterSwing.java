@@ -54,6 +54,17 @@ public class TreeDiameterSwing extends JFrame {
     private List<Vertex> diameterPath = new ArrayList<>();
     private int diameterLength = 0;
     private int diameterWeight = 0;
+    private int[] eccentricities = new int[0];
+    private int loadGeneration = 0;
+    private boolean loading = false;
+
+    private static final int MAX_TOP_PATHS = 1000;
+
+    // Цвета путей топ-k не совпадают с цветами диаметра и весов рёбер из легенды
+    private static final Color[] PATH_COLORS = {
+            Color.MAGENTA, Color.BLUE, new Color(0, 139, 139), new Color(128, 0, 128),
+            new Color(139, 69, 19), new Color(70, 130, 180)
+    };
 
     private DrawingPanel drawingPanel;
     private JLabel infoLabel;
@@ -174,6 +185,8 @@ public class TreeDiameterSwing extends JFrame {
         diameterPath.clear();
         diameterLength = 0;
         diameterWeight = 0;
+        loadGeneration++;
+        loading = false;
 
         try {
             BufferedReader reader = new BufferedReader(new FileReader(filename));
@@ -201,26 +214,7 @@ public class TreeDiameterSwing extends JFrame {
 
             System.out.println("Загружено " + edgeCount + " рёбер");
 
-            if (!isTree()) {
-                System.out.println("ОШИБКА: Загруженный граф не является деревом!");
-                vertices.clear();
-                edges.clear();
-                diameterPath.clear();
-                diameterLength = 0;
-                diameterWeight = 0;
-                createSampleTree();
-                setPositions();
-                findDiameter();
-                drawingPanel.repaint();
-                updateInfo();
-                return;
-            }
-
-            setPositions();
-            findDiameter();
-            drawingPanel.repaint();
-            updateInfo();
-            System.out.println("Дерево успешно загружено");
+            finishLoad(computeCacheKey());
 
         } catch (Exception e) {
             System.out.println("Ошибка при чтении файла: " + e.getMessage());
@@ -246,6 +240,8 @@ public class TreeDiameterSwing extends JFrame {
         diameterPath.clear();
         diameterLength = 0;
         diameterWeight = 0;
+        loadGeneration++;
+        loading = false;
 
         try {
             BufferedReader reader = new BufferedReader(new FileReader(filename));
@@ -271,26 +267,7 @@ public class TreeDiameterSwing extends JFrame {
 
             System.out.println("Загружено " + edgeCount + " рёбер");
 
-            if (!isTree()) {
-                System.out.println("ОШИБКА: Загруженный граф не является деревом!");
-                vertices.clear();
-                edges.clear();
-                diameterPath.clear();
-                diameterLength = 0;
-                diameterWeight = 0;
-                createSampleTree();
-                setPositions();
-                findDiameter();
-                drawingPanel.repaint();
-                updateInfo();
-                return;
-            }
-
-            setPositions();
-            findDiameter();
-            drawingPanel.repaint();
-            updateInfo();
-            System.out.println("Дерево успешно загружено");
+            finishLoad(computeCacheKey());
 
         } catch (Exception e) {
             System.out.println("Ошибка при чтении файла: " + e.getMessage());
@@ -345,9 +322,115 @@ public class TreeDiameterSwing extends JFrame {
             System.out.print(v.id + " ");
         }
         System.out.println();
+
+        System.out.println("\nШаг 4: Эксцентриситеты вершин (расстояние до дальнего конца диаметра)");
+        int[] fromStart = new int[vertices.size()];
+        int[] fromEnd = new int[vertices.size()];
+        fillDepths(v1, null, 0, fromStart);
+        fillDepths(v2, null, 0, fromEnd);
+        eccentricities = new int[vertices.size()];
+        for (int i = 0; i < eccentricities.length; i++) {
+            eccentricities[i] = Math.max(fromStart[i], fromEnd[i]);
+            System.out.println("• V" + i + ": " + eccentricities[i]);
+        }
         System.out.println("=== ПОИСК ДИАМЕТРА ЗАВЕРШЁН ===\n");
     }
 
+    private void fillDepths(Vertex current, Vertex parent, int depth, int[] depths) {
+        depths[current.id] = depth;
+
+        for (Edge edge : current.edges) {
+            Vertex neighbor = (edge.u == current) ? edge.v : edge.u;
+            if (neighbor != parent) {
+                fillDepths(neighbor, current, depth + 1, depths);
+            }
+        }
+    }
+
+    private long computeCacheKey() {
+        long key = TreeDiameterCache.vertexHash(vertices.size());
+        for (Edge edge : edges) {
+            key += TreeDiameterCache.edgeHash(edge.u.id, edge.v.id, edge.weight);
+        }
+        return key;
+    }
+
+    // Чтение кэша идёт с диска, поэтому выполняется в фоне; до ответа дерево показывается без диаметра
+    private void finishLoad(long cacheKey) {
+        int generation = loadGeneration;
+        int vertexCount = vertices.size();
+        setPositions();
+        drawingPanel.repaint();
+        updateInfo();
+
+        SwingWorker<TreeDiameterCache.Entry, Void> worker = new SwingWorker<>() {
+            @Override
+            protected TreeDiameterCache.Entry doInBackground() {
+                return TreeDiameterCache.getInstance().get(cacheKey, vertexCount);
+            }
+
+            @Override
+            protected void done() {
+                if (generation != loadGeneration) return;
+                loading = false;
+
+                TreeDiameterCache.Entry entry = null;
+                try {
+                    entry = get();
+                } catch (Exception e) {
+                    System.out.println("Ошибка чтения кэша: " + e.getMessage());
+                }
+
+                if (entry != null) {
+                    applyCached(entry);
+                    System.out.println("Дерево успешно загружено (результат взят из кэша)");
+                } else if (!isTree()) {
+                    System.out.println("ОШИБКА: Загруженный граф не является деревом!");
+                    vertices.clear();
+                    edges.clear();
+                    diameterPath.clear();
+                    diameterLength = 0;
+                    diameterWeight = 0;
+                    createSampleTree();
+                    setPositions();
+                    findDiameter();
+                } else {
+                    findDiameter();
+                    storeInCache(cacheKey);
+                    System.out.println("Дерево успешно загружено");
+                }
+                drawingPanel.repaint();
+                updateInfo();
+            }
+        };
+        loading = true;
+        worker.execute();
+    }
+
+    private void applyCached(TreeDiameterCache.Entry entry) {
+        System.out.println("Результат найден в кэше, проверка дерева и поиск диаметра пропущены");
+        diameterPath = new ArrayList<>();
+        for (int id : entry.diameter.path) {
+            diameterPath.add(vertices.get(id));
+        }
+        diameterLength = entry.diameter.length;
+        diameterWeight = entry.diameter.weight;
+        eccentricities = entry.eccentricities;
+    }
+
+    private void storeInCache(long cacheKey) {
+        if (diameterPath.isEmpty()) return;
+
+        int[] path = new int[diameterPath.size()];
+        for (int i = 0; i < path.length; i++) {
+            path[i] = diameterPath.get(i).id;
+        }
+        PrimitiveTree.Diameter diameter = new PrimitiveTree.Diameter(path[0], path[path.length - 1],
+                diameterLength, diameterWeight, path);
+        TreeDiameterCache.getInstance().store(cacheKey,
+                new TreeDiameterCache.Entry(vertices.size(), diameter, eccentricities));
+    }
+
     private DFSResult dfs(Vertex current, Vertex parent) {
         Vertex farthest = current;
         int maxDist = 0;
@@ -472,6 +555,7 @@ public class TreeDiameterSwing extends JFrame {
         JButton randomBtn = new JButton("Создать случайное дерево");
         JButton edgesBtn = new JButton("Загрузка дерева из списка рёбер");
         JButton matrixBtn = new JButton("Загрузка дерева из матрицы смежности");
+        JButton topBtn = new JButton("Топ-k путей по весу");
 
         showBtn.addActionListener(e -> {
             showPath();
@@ -495,11 +579,16 @@ public class TreeDiameterSwing extends JFrame {
             loadFromAdjacencyMatrix(filePath);
         });
 
+        topBtn.addActionListener(e -> {
+            askTopPaths();
+        });
+
         buttons.add(showBtn);
         buttons.add(resetBtn);
         buttons.add(randomBtn);
         buttons.add(edgesBtn);
         buttons.add(matrixBtn);
+        buttons.add(topBtn);
 
         JPanel infoPanel = new JPanel();
         infoPanel.setLayout(new BoxLayout(infoPanel, BoxLayout.Y_AXIS));
@@ -528,6 +617,7 @@ public class TreeDiameterSwing extends JFrame {
         addLegendItem(legendPanel, Color.YELLOW.darker(), "Вершина на пути диаметра");
         addLegendItem(legendPanel, Color.BLACK, "Обычное ребро");
         addLegendItem(legendPanel, Color.ORANGE, "Ребро на пути диаметра");
+        addLegendItem(legendPanel, PATH_COLORS[0], "Пути топ-k по весу (у каждого свой цвет)");
 
         JLabel weightLabel = new JLabel("Числа на рёбрах - вес");
         weightLabel.setFont(new Font("Dialog", Font.ITALIC, 12));
@@ -588,6 +678,110 @@ public class TreeDiameterSwing extends JFrame {
         System.out.println("Диаметр отображен на графе\n");
     }
 
+    private void askTopPaths() {
+        String input = JOptionPane.showInputDialog(this,
+                "Количество путей k (от 1 до " + MAX_TOP_PATHS + "):", "3");
+        if (input == null) return;
+
+        int k;
+        try {
+            k = Integer.parseInt(input.trim());
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Введите целое число");
+            return;
+        }
+        if (k < 1) {
+            JOptionPane.showMessageDialog(this, "k должно быть не меньше 1");
+            return;
+        }
+        if (k > MAX_TOP_PATHS) {
+            JOptionPane.showMessageDialog(this, "k ограничено значением " + MAX_TOP_PATHS);
+            k = MAX_TOP_PATHS;
+        }
+
+        String[] modes = {"Самые далёкие пары вершин", "Непересекающиеся пути"};
+        int mode = JOptionPane.showOptionDialog(this,
+                "Какие пути искать? Пути упорядочены по суммарному весу рёбер,\n" +
+                "а диаметр - по количеству рёбер, поэтому они могут не совпадать.",
+                "Топ-" + k + " путей по весу",
+                JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, modes, modes[0]);
+        if (mode < 0) return;
+
+        showTopPaths(k, mode == 1);
+    }
+
+    private PrimitiveTree toPrimitiveTree() {
+        PrimitiveTree tree = new PrimitiveTree();
+        tree.reset(vertices.size());
+        for (Edge edge : edges) {
+            tree.addEdge(edge.u.id, edge.v.id, edge.weight);
+        }
+        tree.buildAdjacency();
+        return tree;
+    }
+
+    private void showTopPaths(int k, boolean disjoint) {
+        System.out.println("\n=== ТОП-" + k + (disjoint ? " НЕПЕРЕСЕКАЮЩИХСЯ ПУТЕЙ" : " САМЫХ ДАЛЁКИХ ПАР") + " ПО ВЕСУ ===");
+        if (vertices.isEmpty()) return;
+        if (loading) {
+            System.out.println("Дерево ещё загружается, повторите запрос позже");
+            return;
+        }
+
+        PrimitiveTree tree = toPrimitiveTree();
+        List<TreePathQueries.WeightedPath> paths = disjoint
+                ? TreePathQueries.heaviestDisjointPaths(tree, k)
+                : TreePathQueries.farthestPairs(tree, k);
+        TreePathQueries.fillPaths(tree, paths);
+
+        for (Vertex v : vertices) v.color = Color.gray;
+        for (Edge e : edges) e.color = Color.BLACK;
+
+        // Пути раскрашиваются с конца, чтобы на общих рёбрах был виден цвет более тяжёлого пути
+        StringBuilder info = new StringBuilder();
+        for (int i = paths.size() - 1; i >= 0; i--) {
+            TreePathQueries.WeightedPath path = paths.get(i);
+            Color color = PATH_COLORS[i % PATH_COLORS.length];
+            for (int j = 0; j < path.path.length; j++) {
+                Vertex v = vertices.get(path.path[j]);
+                v.color = color;
+                if (j > 0) {
+                    Edge e = findEdge(vertices.get(path.path[j - 1]), v);
+                    if (e != null) e.color = color;
+                }
+            }
+        }
+
+        for (int i = 0; i < paths.size(); i++) {
+            TreePathQueries.WeightedPath path = paths.get(i);
+            StringBuilder pathStr = new StringBuilder();
+            for (int id : path.path) {
+                pathStr.append(id).append(" ");
+            }
+            System.out.println((i + 1) + ". V" + path.start + " - V" + path.end +
+                               " (вес: " + path.weight + "), путь: " + pathStr);
+            info.append("<br>").append(i + 1).append(". вес ").append(path.weight)
+                .append(": ").append(pathStr);
+        }
+
+        drawingPanel.repaint();
+        updateInfo();
+        infoLabel.setText(infoLabel.getText().replace("</html>",
+                "<br><br>Топ-" + k + (disjoint ? " непересекающихся путей" : " самых далёких пар") +
+                " по суммарному весу рёбер:" +
+                info + "</html>"));
+        System.out.println("Найдено путей: " + paths.size() + "\n");
+    }
+
+    private Edge findEdge(Vertex u, Vertex v) {
+        for (Edge e : u.edges) {
+            if ((e.u == u && e.v == v) || (e.u == v && e.v == u)) {
+                return e;
+            }
+        }
+        return null;
+    }
+
     private void reset() {
         System.out.println("\n=== СБРОС ОТОБРАЖЕНИЯ ===");
 
@@ -599,6 +793,8 @@ public class TreeDiameterSwing extends JFrame {
 
     private void randomTree() {
         System.out.println("\n=== ГЕНЕРАЦИЯ СЛУЧАЙНОГО ДЕРЕВА ===");
+        loadGeneration++;
+        loading = false;
 
         Random rand = new Random();
         int n = 6 + rand.nextInt(6);
@@ -643,9 +839,11 @@ public class TreeDiameterSwing extends JFrame {
         }
 
         int pathWeight = calculatePathWeight(diameterPath);
+        int radius = Arrays.stream(eccentricities).min().orElse(0);
         infoLabel.setText("<html>Вершин: " + vertices.size() +
                           "<br>Диаметр (количество рёбер): " + diameterLength +
                           "<br>Суммарный вес пути: " + pathWeight +
+                          "<br>Радиус (наименьший эксцентриситет): " + radius +
                           "<br>Путь: " + pathStr + "</html>");
     }
 
@@ -663,7 +861,7 @@ public class TreeDiameterSwing extends JFrame {
 
             for (Edge edge : edges) {
                 g2d.setColor(edge.color);
-                g2d.setStroke(new BasicStroke(edge.color == Color.ORANGE ? 5 : 2));
+                g2d.setStroke(new BasicStroke(edge.color != Color.BLACK ? 5 : 2));
                 g2d.drawLine(edge.u.x, edge.u.y, edge.v.x, edge.v.y);
             }
 
@@ -687,7 +885,12 @@ public class TreeDiameterSwing extends JFrame {
         }
     }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length > 0) {
+            TreeBatchProcessor.main(args);
+            return;
+        }
+
         System.out.println("Запуск программы поиска диаметра дерева");
         System.out.println("========================================");
 
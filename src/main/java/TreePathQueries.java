@@ -0,0 +1,487 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+class TreePathQueries {
+
+    static class WeightedPath {
+        int start;
+        int end;
+        int weight;
+        int[] path;
+
+        WeightedPath(int start, int end, int weight, int[] path) {
+            this.start = start;
+            this.end = end;
+            this.weight = weight;
+            this.path = path;
+        }
+    }
+
+    // k самых далёких (по весу) пар вершин, т.е. k самых тяжёлых путей с различными концами.
+    // Каждая пара вершин ровно один раз попадает в последовательность центроида, разделяющего её:
+    // вершина поддерева j сочетается с центроидом и вершинами поддеревьев 0..j-1 - это префикс.
+    // Лучший партнёр для префикса известен заранее, поэтому начальные кандидаты отбираются
+    // ограниченной кучей размера k, а при извлечении диапазон делится пополам по максимуму
+    // (дерево отрезков). Итого O(n log n + k log n) вместо перебора всех пар.
+    // Возвращаются только концы и вес, сами пути строит fillPaths для тех, что нужно показать
+    static List<WeightedPath> farthestPairs(PrimitiveTree tree, int k) {
+        if (k > Integer.MAX_VALUE / 3) {
+            throw new IllegalArgumentException("слишком большое k: " + k);
+        }
+        int n = tree.n;
+        long pairCount = (long) n * (n - 1) / 2;
+        k = (int) Math.min(k, pairCount);
+        List<WeightedPath> result = new ArrayList<>();
+        if (k <= 0) return result;
+
+        CentroidSequence seq = new CentroidSequence(tree);
+        int size = seq.size;
+
+        // Лучший партнёр для каждой позиции - максимум на префиксе последовательности центроида
+        int[] prefixBest = new int[size];
+        for (int i = 0; i < size; i++) {
+            int l = seq.rangeLeft[i];
+            prefixBest[i] = (i == l || seq.dist[i] > seq.dist[prefixBest[i - 1]]) ? i : prefixBest[i - 1];
+        }
+
+        int[] candidate = new int[k];
+        int[] candidateValue = new int[k];
+        int candidates = 0;
+        for (int i = 0; i < size; i++) {
+            int r = seq.rangeRight[i];
+            if (r < seq.rangeLeft[i]) continue;
+            int value = seq.dist[i] + seq.dist[prefixBest[r]];
+            if (candidates < k) {
+                candidate[candidates] = i;
+                candidateValue[candidates] = value;
+                siftUp(candidate, candidateValue, candidates++, false);
+            } else if (value > candidateValue[0]) {
+                candidate[0] = i;
+                candidateValue[0] = value;
+                siftDown(candidate, candidateValue, 0, candidates, false);
+            }
+        }
+
+        SegmentTree maxTree = new SegmentTree(seq.dist, size);
+
+        // Куча на максимум: позиция, её диапазон партнёров и текущий лучший партнёр в нём
+        int capacity = candidates + 2 * k;
+        int[] heap = new int[capacity];
+        int[] heapValue = new int[capacity];
+        int[] itemPos = new int[capacity];
+        int[] itemLeft = new int[capacity];
+        int[] itemRight = new int[capacity];
+        int[] itemBest = new int[capacity];
+        int items = 0;
+        int heapSize = 0;
+
+        for (int c = 0; c < candidates; c++) {
+            int i = candidate[c];
+            int r = seq.rangeRight[i];
+            itemPos[items] = i;
+            itemLeft[items] = seq.rangeLeft[i];
+            itemRight[items] = r;
+            itemBest[items] = prefixBest[r];
+            heap[heapSize] = items;
+            heapValue[heapSize] = candidateValue[c];
+            siftUp(heap, heapValue, heapSize++, true);
+            items++;
+        }
+
+        while (result.size() < k && heapSize > 0) {
+            int item = heap[0];
+            int value = heapValue[0];
+            heapSize--;
+            heap[0] = heap[heapSize];
+            heapValue[0] = heapValue[heapSize];
+            siftDown(heap, heapValue, 0, heapSize, true);
+
+            int i = itemPos[item];
+            int best = itemBest[item];
+            int u = seq.vertex[best];
+            int v = seq.vertex[i];
+            result.add(new WeightedPath(u, v, value, null));
+
+            int[][] parts = {{itemLeft[item], best - 1}, {best + 1, itemRight[item]}};
+            for (int[] part : parts) {
+                if (part[0] > part[1]) continue;
+                int partBest = maxTree.argmax(part[0], part[1]);
+                itemPos[items] = i;
+                itemLeft[items] = part[0];
+                itemRight[items] = part[1];
+                itemBest[items] = partBest;
+                heap[heapSize] = items;
+                heapValue[heapSize] = seq.dist[i] + seq.dist[partBest];
+                siftUp(heap, heapValue, heapSize++, true);
+                items++;
+            }
+        }
+        return result;
+    }
+
+    // k самых тяжёлых вершинно-непересекающихся путей: жадно берётся самый тяжёлый путь в
+    // компоненте, его вершины удаляются, оставшиеся части становятся новыми компонентами.
+    // Каждая компонента пересчитывается один раз при появлении, так что время O(n) на
+    // каждое разбиение компоненты. Из компоненты хотя бы с одним ребром путь берётся всегда,
+    // даже если все её рёбра отрицательные; одиночные вершины путей не дают
+    static List<WeightedPath> heaviestDisjointPaths(PrimitiveTree tree, int k) {
+        int n = tree.n;
+        List<WeightedPath> result = new ArrayList<>();
+        if (k <= 0 || n == 0) return result;
+
+        boolean[] removed = new boolean[n];
+        int[] parent = new int[n];
+        int[] down = new int[n];
+        int[] downChild = new int[n];
+        int[] order = new int[n];
+
+        List<WeightedPath> found = new ArrayList<>();
+        int[] heap = new int[n];
+        int[] heapValue = new int[n];
+        int heapSize = 0;
+
+        int[] roots = {0};
+        int rootCount = 1;
+        while (true) {
+            for (int r = 0; r < rootCount; r++) {
+                WeightedPath best = heaviestPath(tree, roots[r], removed, parent, down, downChild, order);
+                if (best == null) continue;
+                heap[heapSize] = found.size();
+                heapValue[heapSize] = best.weight;
+                found.add(best);
+                siftUp(heap, heapValue, heapSize++, true);
+            }
+            if (result.size() >= k || heapSize == 0) break;
+
+            WeightedPath next = found.get(heap[0]);
+            heapSize--;
+            heap[0] = heap[heapSize];
+            heapValue[0] = heapValue[heapSize];
+            siftDown(heap, heapValue, 0, heapSize, true);
+            result.add(next);
+
+            for (int v : next.path) {
+                removed[v] = true;
+            }
+            rootCount = 0;
+            roots = new int[2 * next.path.length];
+            for (int v : next.path) {
+                for (int e = tree.offset[v]; e < tree.offset[v + 1]; e++) {
+                    int neighbor = tree.adj[e];
+                    if (removed[neighbor]) continue;
+                    if (rootCount == roots.length) roots = Arrays.copyOf(roots, rootCount * 2);
+                    roots[rootCount++] = neighbor;
+                }
+            }
+        }
+        return result;
+    }
+
+    // Самый тяжёлый путь в компоненте по динамике: down[v] - лучшая ветвь вниз от v
+    private static WeightedPath heaviestPath(PrimitiveTree tree, int root, boolean[] removed,
+                                             int[] parent, int[] down, int[] downChild, int[] order) {
+        int count = 0;
+        order[count++] = root;
+        parent[root] = -1;
+        for (int head = 0; head < count; head++) {
+            int v = order[head];
+            for (int e = tree.offset[v]; e < tree.offset[v + 1]; e++) {
+                int neighbor = tree.adj[e];
+                if (neighbor == parent[v] || removed[neighbor]) continue;
+                parent[neighbor] = v;
+                order[count++] = neighbor;
+            }
+        }
+        if (count < 2) return null;
+
+        // Продолжение вниз с отрицательным весом только уменьшает путь, поэтому down[v] не меньше
+        // нуля. Но путь с вершиной v наверху содержит хотя бы одно ребро - лучшую ветвь, даже
+        // отрицательную; вторая ветвь добавляется, только если она не уменьшает вес
+        int bestWeight = Integer.MIN_VALUE;
+        int bestTop = -1;
+        int bestFirst = -1;
+        int bestSecond = -1;
+        for (int idx = count - 1; idx >= 0; idx--) {
+            int v = order[idx];
+            int first = 0;
+            int second = 0;
+            int firstChild = -1;
+            int secondChild = -1;
+            for (int e = tree.offset[v]; e < tree.offset[v + 1]; e++) {
+                int child = tree.adj[e];
+                if (child == parent[v] || removed[child]) continue;
+                int branch = down[child] + tree.adjWeight[e];
+                if (firstChild == -1 || branch > first) {
+                    second = first;
+                    secondChild = firstChild;
+                    first = branch;
+                    firstChild = child;
+                } else if (secondChild == -1 || branch > second) {
+                    second = branch;
+                    secondChild = child;
+                }
+            }
+            if (firstChild == -1 || first < 0) {
+                down[v] = 0;
+                downChild[v] = -1;
+            } else {
+                down[v] = first;
+                downChild[v] = firstChild;
+            }
+            if (firstChild == -1) continue;
+            if (secondChild != -1 && second < 0) secondChild = -1;
+            int through = secondChild == -1 ? first : first + second;
+            if (through > bestWeight) {
+                bestWeight = through;
+                bestTop = v;
+                bestFirst = firstChild;
+                bestSecond = secondChild;
+            }
+        }
+
+        if (bestTop == -1) return null;
+
+        List<Integer> left = new ArrayList<>();
+        for (int v = bestFirst; v != -1; v = downChild[v]) {
+            left.add(v);
+        }
+        int length = left.size() + 1;
+        for (int v = bestSecond; v != -1; v = downChild[v]) {
+            length++;
+        }
+        int[] path = new int[length];
+        int index = 0;
+        for (int i = left.size() - 1; i >= 0; i--) {
+            path[index++] = left.get(i);
+        }
+        path[index++] = bestTop;
+        for (int v = bestSecond; v != -1; v = downChild[v]) {
+            path[index++] = v;
+        }
+        return new WeightedPath(path[0], path[length - 1], bestWeight, path);
+    }
+
+    // Восстановление вершин путей, для которых известны только концы. Дерево подвешивается
+    // один раз, длина каждого пути считается подъёмом к общему предку, массив выделяется по ней
+    static void fillPaths(PrimitiveTree tree, List<WeightedPath> paths) {
+        if (paths.isEmpty()) return;
+
+        int[] parent = rootAt(tree, 0);
+        int[] depth = Arrays.copyOf(tree.depth, tree.n);
+        for (WeightedPath p : paths) {
+            if (p.path == null) {
+                p.path = pathBetween(parent, depth, p.start, p.end);
+            }
+        }
+    }
+
+    private static int[] rootAt(PrimitiveTree tree, int root) {
+        tree.farthest(root);
+        return Arrays.copyOf(tree.parent, tree.n);
+    }
+
+    private static int[] pathBetween(int[] parent, int[] depth, int u, int v) {
+        int a = u;
+        int b = v;
+        int length = 0;
+        while (depth[a] > depth[b]) { a = parent[a]; length++; }
+        while (depth[b] > depth[a]) { b = parent[b]; length++; }
+        while (a != b) { a = parent[a]; b = parent[b]; length += 2; }
+
+        int[] path = new int[length + 1];
+        int head = 0;
+        int tail = length;
+        a = u;
+        b = v;
+        while (depth[a] > depth[b]) { path[head++] = a; a = parent[a]; }
+        while (depth[b] > depth[a]) { path[tail--] = b; b = parent[b]; }
+        while (a != b) {
+            path[head++] = a;
+            a = parent[a];
+            path[tail--] = b;
+            b = parent[b];
+        }
+        path[head] = a;
+        return path;
+    }
+
+    private static boolean before(int[] value, int a, int b, boolean max) {
+        return max ? value[a] > value[b] : value[a] < value[b];
+    }
+
+    private static void siftUp(int[] heap, int[] value, int i, boolean max) {
+        while (i > 0) {
+            int p = (i - 1) / 2;
+            if (!before(value, i, p, max)) break;
+            swap(heap, value, i, p);
+            i = p;
+        }
+    }
+
+    private static void siftDown(int[] heap, int[] value, int i, int size, boolean max) {
+        while (true) {
+            int l = 2 * i + 1;
+            if (l >= size) break;
+            int c = (l + 1 < size && before(value, l + 1, l, max)) ? l + 1 : l;
+            if (!before(value, c, i, max)) break;
+            swap(heap, value, i, c);
+            i = c;
+        }
+    }
+
+    private static void swap(int[] heap, int[] value, int a, int b) {
+        int t = heap[a];
+        heap[a] = heap[b];
+        heap[b] = t;
+        t = value[a];
+        value[a] = value[b];
+        value[b] = t;
+    }
+
+    // Последовательности центроидной декомпозиции, записанные подряд в общие массивы.
+    // Для позиции i партнёры лежат в [rangeLeft[i], rangeRight[i]]: центроид и предыдущие поддеревья
+    static class CentroidSequence {
+        int size;
+        int[] vertex;
+        int[] dist;
+        int[] rangeLeft;
+        int[] rangeRight;
+
+        CentroidSequence(PrimitiveTree tree) {
+            int n = tree.n;
+            int capacity = Math.max(16, n * 2);
+            vertex = new int[capacity];
+            dist = new int[capacity];
+            rangeLeft = new int[capacity];
+            rangeRight = new int[capacity];
+
+            boolean[] removed = new boolean[n];
+            int[] parent = new int[n];
+            int[] subtree = new int[n];
+            int[] distance = new int[n];
+            int[] order = new int[n];
+            int[] pending = new int[n];
+            int pendingCount = 0;
+            pending[pendingCount++] = 0;
+
+            while (pendingCount > 0) {
+                int start = pending[--pendingCount];
+
+                int count = collect(tree, start, removed, parent, order, distance);
+                for (int idx = count - 1; idx >= 0; idx--) {
+                    int v = order[idx];
+                    subtree[v] = 1;
+                    for (int e = tree.offset[v]; e < tree.offset[v + 1]; e++) {
+                        int child = tree.adj[e];
+                        if (child != parent[v] && !removed[child]) subtree[v] += subtree[child];
+                    }
+                }
+                int centroid = start;
+                while (true) {
+                    int next = -1;
+                    for (int e = tree.offset[centroid]; e < tree.offset[centroid + 1]; e++) {
+                        int child = tree.adj[e];
+                        if (child != parent[centroid] && !removed[child] && subtree[child] * 2 > count) {
+                            next = child;
+                            break;
+                        }
+                    }
+                    if (next == -1) break;
+                    centroid = next;
+                }
+
+                int centroidPos = size;
+                append(centroid, 0, centroidPos, centroidPos - 1);
+                int prefixEnd = centroidPos;
+                removed[centroid] = true;
+                for (int e = tree.offset[centroid]; e < tree.offset[centroid + 1]; e++) {
+                    int child = tree.adj[e];
+                    if (removed[child]) continue;
+
+                    int childCount = collect(tree, child, removed, parent, order, distance);
+                    distance[child] = tree.adjWeight[e];
+                    for (int idx = 0; idx < childCount; idx++) {
+                        int v = order[idx];
+                        if (idx > 0) {
+                            distance[v] += distance[parent[v]];
+                        }
+                        append(v, distance[v], centroidPos, prefixEnd);
+                    }
+                    prefixEnd = size - 1;
+                    pending[pendingCount++] = child;
+                }
+            }
+        }
+
+        private void append(int v, int d, int left, int right) {
+            if (size == vertex.length) {
+                vertex = Arrays.copyOf(vertex, size * 2);
+                dist = Arrays.copyOf(dist, size * 2);
+                rangeLeft = Arrays.copyOf(rangeLeft, size * 2);
+                rangeRight = Arrays.copyOf(rangeRight, size * 2);
+            }
+            vertex[size] = v;
+            dist[size] = d;
+            rangeLeft[size] = left;
+            rangeRight[size] = right;
+            size++;
+        }
+
+        // Обход компоненты в ширину; в parentWeight записывается вес ребра к родителю
+        private static int collect(PrimitiveTree tree, int start, boolean[] removed, int[] parent, int[] order,
+                                   int[] parentWeight) {
+            int count = 0;
+            order[count++] = start;
+            parent[start] = -1;
+            for (int head = 0; head < count; head++) {
+                int v = order[head];
+                for (int e = tree.offset[v]; e < tree.offset[v + 1]; e++) {
+                    int neighbor = tree.adj[e];
+                    if (neighbor == parent[v] || removed[neighbor]) continue;
+                    parent[neighbor] = v;
+                    parentWeight[neighbor] = tree.adjWeight[e];
+                    order[count++] = neighbor;
+                }
+            }
+            return count;
+        }
+    }
+
+    // Дерево отрезков для позиции максимума на отрезке
+    static class SegmentTree {
+        private final int[] values;
+        private final int[] best;
+        private final int base;
+
+        SegmentTree(int[] values, int size) {
+            this.values = values;
+            int b = 1;
+            while (b < size) b *= 2;
+            base = b;
+            best = new int[2 * base];
+            Arrays.fill(best, -1);
+            for (int i = 0; i < size; i++) {
+                best[base + i] = i;
+            }
+            for (int i = base - 1; i >= 1; i--) {
+                best[i] = better(best[2 * i], best[2 * i + 1]);
+            }
+        }
+
+        private int better(int a, int b) {
+            if (a == -1) return b;
+            if (b == -1) return a;
+            return values[b] > values[a] ? b : a;
+        }
+
+        int argmax(int l, int r) {
+            int result = -1;
+            for (l += base, r += base + 1; l < r; l /= 2, r /= 2) {
+                if ((l & 1) == 1) result = better(result, best[l++]);
+                if ((r & 1) == 1) result = better(result, best[--r]);
+            }
+            return result;
+        }
+    }
+}